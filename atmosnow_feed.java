@@ -0,0 +1,293 @@
+package com.michaelsemera.atmosnow;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Push-style weather feed built on {@link java.util.concurrent.Flow}
+ * 
+ * Consumers subscribe to a city and receive {@link WeatherUpdate}s as they are
+ * fetched. Each subscription honours the subscriber's requested demand and
+ * conflates to the latest value, so a slow subscriber only ever sees the most
+ * recent update instead of a growing backlog.
+ * 
+ * @author Michael Semera
+ */
+public class WeatherFeed implements AutoCloseable {
+    
+    private static final int FETCH_THREADS = 4;
+    
+    private final WeatherService weatherService;
+    private final ExecutorService fetchExecutor;
+    private final ScheduledExecutorService pollScheduler;
+    private final Map<String, List<CitySubscription>> subscriptions = new ConcurrentHashMap<>();
+    private final Map<String, WeatherUpdate> lastUpdates = new ConcurrentHashMap<>();
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+    private volatile ScheduledFuture<?> pollTask;
+    private volatile boolean closed;
+    
+    public WeatherFeed(WeatherService weatherService) {
+        this.weatherService = weatherService;
+        this.fetchExecutor = Executors.newFixedThreadPool(FETCH_THREADS, daemonThreads("atmosnow-fetch"));
+        this.pollScheduler = Executors.newSingleThreadScheduledExecutor(daemonThreads("atmosnow-poll"));
+    }
+    
+    /**
+     * Returns a publisher of updates for a given city
+     * 
+     * @param city The name of the city
+     * @return Publisher emitting the latest WeatherUpdate for that city
+     */
+    public Flow.Publisher<WeatherUpdate> forCity(String city) {
+        String key = normalize(city);
+        return subscriber -> subscribe(key, subscriber);
+    }
+    
+    /**
+     * Fetches fresh data for a city in the background and pushes it to its subscribers
+     * 
+     * Does nothing if a fetch for the city is already running; its result
+     * will reach the same subscribers.
+     * 
+     * @param city The name of the city
+     */
+    public void refresh(String city) {
+        if (closed) {
+            return;
+        }
+        String key = normalize(city);
+        if (!inFlight.add(key)) {
+            return;
+        }
+        try {
+            fetchExecutor.execute(() -> {
+                try {
+                    publish(key, fetch(key));
+                } finally {
+                    inFlight.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Feed was closed while we were submitting
+            inFlight.remove(key);
+        }
+    }
+    
+    /**
+     * Refreshes every city that currently has at least one subscriber
+     */
+    public void refreshAll() {
+        for (String city : subscriptions.keySet()) {
+            refresh(city);
+        }
+    }
+    
+    /**
+     * Starts periodic refreshing of all subscribed cities, replacing any previous schedule
+     * 
+     * @param period Interval between refreshes
+     * @param unit Time unit of the interval
+     */
+    public synchronized void startPolling(long period, TimeUnit unit) {
+        stopPolling();
+        pollTask = pollScheduler.scheduleAtFixedRate(this::refreshAll, 0, period, unit);
+    }
+    
+    /**
+     * Stops periodic refreshing, if running
+     */
+    public synchronized void stopPolling() {
+        if (pollTask != null) {
+            pollTask.cancel(false);
+            pollTask = null;
+        }
+    }
+    
+    /**
+     * Stops fetching and completes all open subscriptions
+     */
+    @Override
+    public void close() {
+        closed = true;
+        stopPolling();
+        pollScheduler.shutdownNow();
+        fetchExecutor.shutdownNow();
+        for (List<CitySubscription> citySubscriptions : subscriptions.values()) {
+            for (CitySubscription subscription : citySubscriptions) {
+                subscription.complete();
+            }
+        }
+        subscriptions.clear();
+    }
+    
+    private void subscribe(String city, Flow.Subscriber<? super WeatherUpdate> subscriber) {
+        CitySubscription subscription = new CitySubscription(city, subscriber);
+        subscriber.onSubscribe(subscription);
+        if (closed) {
+            subscription.complete();
+            return;
+        }
+        subscriptions.computeIfAbsent(city, k -> new CopyOnWriteArrayList<>()).add(subscription);
+        
+        // close() may have run after the check above and missed this subscription;
+        // completing twice is harmless, so re-check rather than lock
+        if (closed) {
+            subscription.complete();
+            return;
+        }
+        
+        // Replay the last known value so new subscribers don't wait for the next fetch
+        WeatherUpdate last = lastUpdates.get(city);
+        if (last != null) {
+            subscription.offer(last.asReplay());
+        }
+    }
+    
+    private WeatherUpdate fetch(String city) {
+        try {
+            WeatherData currentWeather = weatherService.getCurrentWeather(city);
+            ForecastData forecast = weatherService.getForecast(city);
+            return WeatherUpdate.of(city, currentWeather, forecast);
+        } catch (Exception e) {
+            return WeatherUpdate.failed(city, e);
+        }
+    }
+    
+    private void publish(String city, WeatherUpdate update) {
+        if (update.isSuccessful()) {
+            lastUpdates.put(city, update);
+        }
+        List<CitySubscription> citySubscriptions = subscriptions.get(city);
+        if (citySubscriptions != null) {
+            for (CitySubscription subscription : citySubscriptions) {
+                subscription.offer(update);
+            }
+        }
+    }
+    
+    private void remove(CitySubscription subscription) {
+        subscriptions.computeIfPresent(subscription.city, (k, list) -> {
+            list.remove(subscription);
+            return list.isEmpty() ? null : list;
+        });
+    }
+    
+    static String normalize(String city) {
+        return city.trim().toLowerCase(Locale.ROOT);
+    }
+    
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+    
+    /**
+     * Single subscriber's view of a city: a one-slot mailbox drained against requested demand
+     */
+    private final class CitySubscription implements Flow.Subscription {
+        private final String city;
+        private final Flow.Subscriber<? super WeatherUpdate> subscriber;
+        private final AtomicReference<WeatherUpdate> latest = new AtomicReference<>();
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private volatile boolean cancelled;
+        private volatile boolean done;
+        private volatile Throwable failure;
+        
+        CitySubscription(String city, Flow.Subscriber<? super WeatherUpdate> subscriber) {
+            this.city = city;
+            this.subscriber = subscriber;
+        }
+        
+        /**
+         * Replaces any undelivered update with the newer one and tries to deliver it
+         */
+        void offer(WeatherUpdate update) {
+            latest.set(update);
+            drain();
+        }
+        
+        void complete() {
+            done = true;
+            drain();
+        }
+        
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                failure = new IllegalArgumentException("Requested demand must be positive: " + n);
+                done = true;
+            } else {
+                demand.getAndAccumulate(n, (current, added) -> {
+                    long sum = current + added;
+                    return sum < 0 ? Long.MAX_VALUE : sum;
+                });
+            }
+            drain();
+        }
+        
+        @Override
+        public void cancel() {
+            if (!cancelled) {
+                cancelled = true;
+                remove(this);
+                latest.set(null);
+            }
+        }
+        
+        /**
+         * Serializes all signals to the subscriber; whichever thread wins the
+         * work-in-progress counter delivers on behalf of the others
+         */
+        private void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                while (!cancelled && failure == null && demand.get() > 0) {
+                    WeatherUpdate update = latest.getAndSet(null);
+                    if (update == null) {
+                        break;
+                    }
+                    if (demand.get() != Long.MAX_VALUE) {
+                        demand.decrementAndGet();
+                    }
+                    try {
+                        subscriber.onNext(update);
+                    } catch (Throwable t) {
+                        cancel();
+                    }
+                }
+                if (!cancelled && done) {
+                    cancel();
+                    if (failure != null) {
+                        subscriber.onError(failure);
+                    } else {
+                        subscriber.onComplete();
+                    }
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.michaelsemera.atmosnow;
+
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Bridges {@link WeatherFeed} subscriptions onto the JavaFX Application Thread
+ * 
+ * Updates arriving from any number of subscriptions are parked per city and
+ * handed to the UI in a single batch on the next JavaFX pulse, rather than
+ * posting one Platform.runLater call per update. The pulse timer only runs
+ * while there is something to deliver.
+ * 
+ * @author Michael Semera
+ */
+public class FxUpdateBatcher {
+    
+    private final Consumer<List<WeatherUpdate>> batchHandler;
+    private final Map<String, WeatherUpdate> pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean armed = new AtomicBoolean();
+    private final AnimationTimer pulseTimer = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            onPulse();
+        }
+    };
+    
+    /**
+     * @param batchHandler Callback invoked on the FX thread with all updates collected since the last pulse
+     */
+    public FxUpdateBatcher(Consumer<List<WeatherUpdate>> batchHandler) {
+        this.batchHandler = batchHandler;
+    }
+    
+    /**
+     * Creates a new subscriber that feeds into this batcher
+     * 
+     * @return Subscriber to pass to a publisher from {@link WeatherFeed#forCity(String)}
+     */
+    public BatchingSubscriber newSubscriber() {
+        return new BatchingSubscriber();
+    }
+    
+    private void enqueue(WeatherUpdate update) {
+        // Newer updates for the same city overwrite older ones still waiting for a pulse
+        pending.put(update.getCity(), update);
+        if (armed.compareAndSet(false, true)) {
+            Platform.runLater(pulseTimer::start);
+        }
+    }
+    
+    private void onPulse() {
+        List<WeatherUpdate> batch = new ArrayList<>(pending.size());
+        for (String city : pending.keySet()) {
+            WeatherUpdate update = pending.remove(city);
+            if (update != null) {
+                batch.add(update);
+            }
+        }
+        
+        if (!batch.isEmpty()) {
+            batchHandler.accept(batch);
+            return;
+        }
+        
+        // Idle pulse: stop requesting pulses until the next update arrives
+        pulseTimer.stop();
+        armed.set(false);
+        if (!pending.isEmpty() && armed.compareAndSet(false, true)) {
+            pulseTimer.start();
+        }
+    }
+    
+    /**
+     * Subscriber that forwards every update into the shared pulse batch
+     * 
+     * Demand is requested without bound because the batcher itself conflates
+     * to one pending update per city.
+     */
+    public class BatchingSubscriber implements Flow.Subscriber<WeatherUpdate> {
+        private volatile Flow.Subscription subscription;
+        
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(Long.MAX_VALUE);
+        }
+        
+        @Override
+        public void onNext(WeatherUpdate update) {
+            enqueue(update);
+        }
+        
+        @Override
+        public void onError(Throwable throwable) {
+            subscription = null;
+        }
+        
+        @Override
+        public void onComplete() {
+            subscription = null;
+        }
+        
+        /**
+         * Stops receiving updates from the publisher
+         */
+        public void cancel() {
+            Flow.Subscription current = subscription;
+            if (current != null) {
+                subscription = null;
+                current.cancel();
+            }
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.michaelsemera.atmosnow;
+
+import java.util.Arrays;
+
+/**
+ * Geohash encoding and cell geometry helpers
+ * 
+ * A geohash interleaves longitude and latitude bits and encodes them in
+ * base 32, so every prefix names a rectangular cell and nearby points
+ * share a common prefix.
+ * 
+ * @author Michael Semera
+ */
+final class Geohash {
+    
+    static final int MIN_PRECISION = 1;
+    static final int MAX_PRECISION = 12;
+    
+    private static final char[] BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+    private static final int[] BASE32_INDEX = new int[128];
+    private static final double EARTH_RADIUS_KM = 6371.0088;
+    
+    static {
+        Arrays.fill(BASE32_INDEX, -1);
+        for (int i = 0; i < BASE32.length; i++) {
+            BASE32_INDEX[BASE32[i]] = i;
+        }
+    }
+    
+    private Geohash() {
+    }
+    
+    /**
+     * Encodes a coordinate into a geohash of the given length
+     * 
+     * @param latitude Latitude in degrees (-90 to 90)
+     * @param longitude Longitude in degrees (-180 to 180)
+     * @param precision Number of geohash characters (1 to 12)
+     * @return Geohash string identifying the cell containing the coordinate
+     */
+    static String encode(double latitude, double longitude, int precision) {
+        validateCoordinates(latitude, longitude);
+        validatePrecision(precision);
+        
+        double minLat = -90, maxLat = 90;
+        double minLon = -180, maxLon = 180;
+        char[] hash = new char[precision];
+        boolean evenBit = true;
+        
+        for (int i = 0; i < precision; i++) {
+            int index = 0;
+            for (int bit = 0; bit < 5; bit++) {
+                index <<= 1;
+                if (evenBit) {
+                    double mid = (minLon + maxLon) / 2;
+                    if (longitude >= mid) {
+                        index |= 1;
+                        minLon = mid;
+                    } else {
+                        maxLon = mid;
+                    }
+                } else {
+                    double mid = (minLat + maxLat) / 2;
+                    if (latitude >= mid) {
+                        index |= 1;
+                        minLat = mid;
+                    } else {
+                        maxLat = mid;
+                    }
+                }
+                evenBit = !evenBit;
+            }
+            hash[i] = BASE32[index];
+        }
+        return new String(hash);
+    }
+    
+    /**
+     * Decodes a geohash to the centre of its cell
+     * 
+     * @param hash Geohash string
+     * @return Two-element array of {latitude, longitude}
+     */
+    static double[] decodeCenter(String hash) {
+        double minLat = -90, maxLat = 90;
+        double minLon = -180, maxLon = 180;
+        boolean evenBit = true;
+        
+        for (int i = 0; i < hash.length(); i++) {
+            char c = hash.charAt(i);
+            int index = c < BASE32_INDEX.length ? BASE32_INDEX[c] : -1;
+            if (index < 0) {
+                throw new IllegalArgumentException("Invalid geohash character: " + c);
+            }
+            for (int bit = 4; bit >= 0; bit--) {
+                boolean set = ((index >> bit) & 1) == 1;
+                if (evenBit) {
+                    double mid = (minLon + maxLon) / 2;
+                    if (set) {
+                        minLon = mid;
+                    } else {
+                        maxLon = mid;
+                    }
+                } else {
+                    double mid = (minLat + maxLat) / 2;
+                    if (set) {
+                        minLat = mid;
+                    } else {
+                        maxLat = mid;
+                    }
+                }
+                evenBit = !evenBit;
+            }
+        }
+        return new double[] {(minLat + maxLat) / 2, (minLon + maxLon) / 2};
+    }
+    
+    /**
+     * @return Height of a cell at the given precision, in degrees of latitude
+     */
+    static double cellHeightDegrees(int precision) {
+        int latBits = (precision * 5) / 2;
+        return 180.0 / (1L << latBits);
+    }
+    
+    /**
+     * @return Width of a cell at the given precision, in degrees of longitude
+     */
+    static double cellWidthDegrees(int precision) {
+        int lonBits = (precision * 5 + 1) / 2;
+        return 360.0 / (1L << lonBits);
+    }
+    
+    /**
+     * Great-circle distance between two coordinates using the haversine formula
+     * 
+     * @return Distance in kilometres
+     */
+    static double distanceKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+    
+    static void validateCoordinates(double latitude, double longitude) {
+        if (!(latitude >= -90 && latitude <= 90)) {
+            throw new IllegalArgumentException("Latitude out of range: " + latitude);
+        }
+        if (!(longitude >= -180 && longitude <= 180)) {
+            throw new IllegalArgumentException("Longitude out of range: " + longitude);
+        }
+    }
+    
+    static void validatePrecision(int precision) {
+        if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException("Geohash precision must be between "
+                    + MIN_PRECISION + " and " + MAX_PRECISION + ": " + precision);
+        }
+    }
+}
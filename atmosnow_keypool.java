@@ -0,0 +1,284 @@
+package com.michaelsemera.atmosnow;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pool of OpenWeatherMap API keys with per-key quota tracking
+ * 
+ * Each key has its own requests-per-minute budget. Requests are dispatched
+ * round-robin to the first key with budget left, using only atomic counters,
+ * so total throughput grows with the number of keys. Keys that are rejected
+ * with 401 or 429 are quarantined and skipped until the quarantine ends.
+ * 
+ * @author Michael Semera
+ */
+public class ApiKeyPool {
+    
+    public static final int DEFAULT_REQUESTS_PER_MINUTE = 60; // OpenWeatherMap free tier
+    public static final int UNLIMITED_REQUESTS_PER_MINUTE = Integer.MAX_VALUE; // rely on the API's own 429s
+    
+    private static final long MINUTE_MILLIS = 60_000;
+    private static final long UNAUTHORIZED_QUARANTINE_MILLIS = 60 * MINUTE_MILLIS;
+    
+    private volatile ApiKey[] keys = new ApiKey[0];
+    private final AtomicInteger cursor = new AtomicInteger();
+    
+    /**
+     * Creates a pool where every key shares the same per-minute quota
+     * 
+     * @param requestsPerMinute Quota for each key
+     * @param keys API keys to add
+     * @return New pool containing the given keys
+     */
+    public static ApiKeyPool of(int requestsPerMinute, String... keys) {
+        ApiKeyPool pool = new ApiKeyPool();
+        for (String key : keys) {
+            pool.addKey(key, requestsPerMinute);
+        }
+        return pool;
+    }
+    
+    /**
+     * Adds a key to the pool
+     * 
+     * @param key OpenWeatherMap API key
+     * @param requestsPerMinute Quota for this key
+     * @return This pool, for chaining
+     */
+    public synchronized ApiKeyPool addKey(String key, int requestsPerMinute) {
+        if (key == null || key.isBlank()) {
+            throw new IllegalArgumentException("API key must not be blank");
+        }
+        if (requestsPerMinute <= 0) {
+            throw new IllegalArgumentException("Requests per minute must be positive: " + requestsPerMinute);
+        }
+        ApiKey[] updated = Arrays.copyOf(keys, keys.length + 1);
+        updated[keys.length] = new ApiKey(key, requestsPerMinute);
+        keys = updated;
+        return this;
+    }
+    
+    /**
+     * Reserves one request against the next key with budget left
+     * 
+     * @return Key to use for the request
+     * @throws Exception if every key is out of quota or quarantined
+     */
+    public ApiKey acquire() throws Exception {
+        return acquire(false);
+    }
+    
+    /**
+     * Reserves one request against the next key with budget left
+     * 
+     * @param oneCall Whether the request goes to the One Call API; keys recently
+     *                found to lack a One Call subscription are then skipped
+     * @return Key to use for the request
+     * @throws Exception if every eligible key is out of quota or quarantined
+     */
+    public ApiKey acquire(boolean oneCall) throws Exception {
+        ApiKey[] current = keys;
+        if (current.length == 0) {
+            throw new Exception("No API keys configured");
+        }
+        
+        long now = System.currentTimeMillis();
+        int start = Math.floorMod(cursor.getAndIncrement(), current.length);
+        for (int i = 0; i < current.length; i++) {
+            ApiKey key = current[(start + i) % current.length];
+            if (oneCall && now < key.oneCallDeniedUntil.get()) {
+                continue;
+            }
+            if (key.tryAcquire(now)) {
+                return key;
+            }
+        }
+        if (oneCall) {
+            throw new Exception("No API key with a One Call subscription has quota left");
+        }
+        throw new Exception("All " + current.length + " API key(s) are out of quota or quarantined");
+    }
+    
+    /**
+     * Records the outcome of a request and quarantines the key if it was rejected
+     * 
+     * @param key Key that was used
+     * @param responseCode HTTP status returned by the API
+     */
+    public void recordResponse(ApiKey key, int responseCode) {
+        long now = System.currentTimeMillis();
+        if (responseCode == 401) {
+            key.quarantine(now + UNAUTHORIZED_QUARANTINE_MILLIS);
+        } else if (responseCode == 429) {
+            // Quotas reset each minute, so sit out the rest of this one
+            key.quarantine((now / MINUTE_MILLIS + 1) * MINUTE_MILLIS);
+        }
+    }
+    
+    /**
+     * Records that a key was refused by the One Call API
+     * 
+     * The key stays available for other endpoints; only One Call requests
+     * skip it for the next hour.
+     * 
+     * @param key Key that was refused
+     */
+    public void recordOneCallDenied(ApiKey key) {
+        long until = System.currentTimeMillis() + UNAUTHORIZED_QUARANTINE_MILLIS;
+        key.oneCallDeniedUntil.accumulateAndGet(until, Math::max);
+    }
+    
+    /**
+     * @return Number of keys in the pool
+     */
+    public int size() {
+        return keys.length;
+    }
+    
+    /**
+     * @return Snapshot of usage for every key in the pool
+     */
+    public List<KeyUsage> getUsage() {
+        long now = System.currentTimeMillis();
+        List<KeyUsage> usage = new ArrayList<>();
+        for (ApiKey key : keys) {
+            usage.add(key.usage(now));
+        }
+        return usage;
+    }
+    
+    /**
+     * A single key and its quota state
+     * 
+     * The current minute and the number of requests made in it are packed
+     * into one long so both can be updated with a single compare-and-set.
+     */
+    public static final class ApiKey {
+        private final String value;
+        private final int requestsPerMinute;
+        private final AtomicLong window = new AtomicLong();
+        private final LongAdder totalRequests = new LongAdder();
+        private final LongAdder rejections = new LongAdder();
+        private final AtomicLong quarantinedUntil = new AtomicLong();
+        private final AtomicLong oneCallDeniedUntil = new AtomicLong();
+        
+        private ApiKey(String value, int requestsPerMinute) {
+            this.value = value;
+            this.requestsPerMinute = requestsPerMinute;
+        }
+        
+        String getValue() {
+            return value;
+        }
+        
+        private boolean tryAcquire(long now) {
+            if (now < quarantinedUntil.get()) {
+                return false;
+            }
+            long minute = now / MINUTE_MILLIS;
+            while (true) {
+                long state = window.get();
+                long used = state >>> 32 == minute ? (int) state : 0;
+                if (used >= requestsPerMinute) {
+                    return false;
+                }
+                if (window.compareAndSet(state, (minute << 32) | (used + 1))) {
+                    totalRequests.increment();
+                    return true;
+                }
+            }
+        }
+        
+        private void quarantine(long until) {
+            rejections.increment();
+            // A longer quarantine (e.g. 401) must not be shortened by a concurrent 429
+            quarantinedUntil.accumulateAndGet(until, Math::max);
+        }
+        
+        private KeyUsage usage(long now) {
+            long state = window.get();
+            int usedThisMinute = state >>> 32 == now / MINUTE_MILLIS ? (int) state : 0;
+            return new KeyUsage(mask(value), requestsPerMinute, usedThisMinute,
+                    totalRequests.sum(), rejections.sum(), now < quarantinedUntil.get(),
+                    now >= oneCallDeniedUntil.get());
+        }
+        
+        private static String mask(String key) {
+            return key.length() <= 4 ? "****" : "****" + key.substring(key.length() - 4);
+        }
+        
+        @Override
+        public String toString() {
+            return mask(value);
+        }
+    }
+    
+    /**
+     * Point-in-time usage of one key
+     */
+    public static final class KeyUsage {
+        private final String maskedKey;
+        private final int requestsPerMinute;
+        private final int usedThisMinute;
+        private final long totalRequests;
+        private final long rejections;
+        private final boolean quarantined;
+        private final boolean oneCallAvailable;
+        
+        KeyUsage(String maskedKey, int requestsPerMinute, int usedThisMinute,
+                 long totalRequests, long rejections, boolean quarantined,
+                 boolean oneCallAvailable) {
+            this.maskedKey = maskedKey;
+            this.requestsPerMinute = requestsPerMinute;
+            this.usedThisMinute = usedThisMinute;
+            this.totalRequests = totalRequests;
+            this.rejections = rejections;
+            this.quarantined = quarantined;
+            this.oneCallAvailable = oneCallAvailable;
+        }
+        
+        public String getMaskedKey() {
+            return maskedKey;
+        }
+        
+        public int getRequestsPerMinute() {
+            return requestsPerMinute;
+        }
+        
+        public int getUsedThisMinute() {
+            return usedThisMinute;
+        }
+        
+        public long getTotalRequests() {
+            return totalRequests;
+        }
+        
+        public long getRejections() {
+            return rejections;
+        }
+        
+        public boolean isQuarantined() {
+            return quarantined;
+        }
+        
+        /**
+         * @return False if the key was recently refused by the One Call API
+         */
+        public boolean isOneCallAvailable() {
+            return oneCallAvailable;
+        }
+        
+        @Override
+        public String toString() {
+            return String.format("%s: %d/%d this minute, %d total, %d rejected%s%s",
+                    maskedKey, usedThisMinute, requestsPerMinute, totalRequests, rejections,
+                    quarantined ? " (quarantined)" : "",
+                    oneCallAvailable ? "" : " (no One Call access)");
+        }
+    }
+}
@@ -14,6 +14,7 @@ import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
 
 /**
  * AtmosNow - Advanced Weather Forecast Application
@@ -27,6 +28,10 @@ import java.time.format.DateTimeFormatter;
 public class AtmosNowApp extends Application {
     
     private WeatherService weatherService;
+    private WeatherFeed weatherFeed;
+    private FxUpdateBatcher updateBatcher;
+    private FxUpdateBatcher.BatchingSubscriber citySubscriber;
+    private String displayedCity;
     private TextField cityTextField;
     private Label currentTempLabel;
     private Label conditionLabel;
@@ -51,6 +56,8 @@ public class AtmosNowApp extends Application {
     @Override
     public void start(Stage primaryStage) {
         weatherService = new WeatherService();
+        weatherFeed = new WeatherFeed(weatherService);
+        updateBatcher = new FxUpdateBatcher(this::applyUpdates);
         
         BorderPane root = new BorderPane();
         root.setStyle("-fx-background-color: linear-gradient(to bottom, #1e3c72, #2a5298);");
@@ -223,33 +230,49 @@ public class AtmosNowApp extends Application {
     }
     
     /**
-     * Loads weather data from the API and updates UI
+     * Subscribes to the city's weather feed and requests a fresh fetch
      */
     private void loadWeatherData(String city) {
         loadingBar.setVisible(true);
         loadingBar.setProgress(ProgressBar.INDETERMINATE_PROGRESS);
         
-        // Simulating API call in background thread
-        new Thread(() -> {
-            try {
-                WeatherData currentWeather = weatherService.getCurrentWeather(city);
-                ForecastData forecast = weatherService.getForecast(city);
-                
-                // Update UI on JavaFX thread
-                javafx.application.Platform.runLater(() -> {
-                    updateCurrentWeather(currentWeather);
-                    updateCharts(forecast);
-                    updateAdditionalInfo(currentWeather);
-                    loadingBar.setVisible(false);
-                });
-                
-            } catch (Exception e) {
-                javafx.application.Platform.runLater(() -> {
-                    showAlert("Error", "Failed to fetch weather data: " + e.getMessage());
-                    loadingBar.setVisible(false);
-                });
+        String key = WeatherFeed.normalize(city);
+        if (!key.equals(displayedCity)) {
+            if (citySubscriber != null) {
+                citySubscriber.cancel();
             }
-        }).start();
+            displayedCity = key;
+            citySubscriber = updateBatcher.newSubscriber();
+            weatherFeed.forCity(key).subscribe(citySubscriber);
+        }
+        weatherFeed.refresh(key);
+    }
+    
+    /**
+     * Applies all updates collected during one JavaFX pulse
+     */
+    private void applyUpdates(List<WeatherUpdate> updates) {
+        for (WeatherUpdate update : updates) {
+            if (!update.getCity().equals(displayedCity)) {
+                continue;
+            }
+            
+            if (update.isSuccessful()) {
+                updateCurrentWeather(update.getCurrentWeather());
+                updateCharts(update.getForecast());
+                updateAdditionalInfo(update.getCurrentWeather());
+            } else {
+                // showAndWait is not allowed while a pulse is being processed
+                String message = update.getError().getMessage();
+                javafx.application.Platform.runLater(() ->
+                    showAlert("Error", "Failed to fetch weather data: " + message));
+            }
+            
+            // Cached data shown on subscribe; keep the indicator until the requested fetch lands
+            if (!update.isReplay()) {
+                loadingBar.setVisible(false);
+            }
+        }
     }
     
     /**
@@ -383,6 +406,11 @@ public class AtmosNowApp extends Application {
         alert.showAndWait();
     }
     
+    @Override
+    public void stop() {
+        weatherFeed.close();
+    }
+    
     public static void main(String[] args) {
         launch(args);
     }
@@ -18,11 +18,14 @@ class WeatherData {
     private final double windSpeed;
     private final String sunrise;
     private final String sunset;
+    private final double latitude;
+    private final double longitude;
     
     public WeatherData(String cityName, double temperature, double feelsLike,
                       int humidity, int pressure, String condition,
                       String description, double windSpeed,
-                      String sunrise, String sunset) {
+                      String sunrise, String sunset,
+                      double latitude, double longitude) {
         this.cityName = cityName;
         this.temperature = temperature;
         this.feelsLike = feelsLike;
@@ -33,6 +36,8 @@ class WeatherData {
         this.windSpeed = windSpeed;
         this.sunrise = sunrise;
         this.sunset = sunset;
+        this.latitude = latitude;
+        this.longitude = longitude;
     }
     
     public String getCityName() {
@@ -75,6 +80,14 @@ class WeatherData {
         return sunset;
     }
     
+    public double getLatitude() {
+        return latitude;
+    }
+    
+    public double getLongitude() {
+        return longitude;
+    }
+    
     @Override
     public String toString() {
         return String.format("Weather in %s: %.1f°C (%s), Humidity: %d%%, Wind: %.1f m/s",
@@ -149,4 +162,75 @@ class ForecastPoint {
         return String.format("%s: %.1f°C, %d%% humidity, %.0f%% rain",
                 timeLabel, temperature, humidity, precipitation);
     }
+}
+
+/**
+ * Model class representing a single pushed weather update for a city
+ * 
+ * @author Michael Semera
+ */
+class WeatherUpdate {
+    private final String city;
+    private final WeatherData currentWeather;
+    private final ForecastData forecast;
+    private final Exception error;
+    private final boolean replay;
+    
+    private WeatherUpdate(String city, WeatherData currentWeather,
+                          ForecastData forecast, Exception error, boolean replay) {
+        this.city = city;
+        this.currentWeather = currentWeather;
+        this.forecast = forecast;
+        this.error = error;
+        this.replay = replay;
+    }
+    
+    public static WeatherUpdate of(String city, WeatherData currentWeather, ForecastData forecast) {
+        return new WeatherUpdate(city, currentWeather, forecast, null, false);
+    }
+    
+    public static WeatherUpdate failed(String city, Exception error) {
+        return new WeatherUpdate(city, null, null, error, false);
+    }
+    
+    /**
+     * @return Copy of this update marked as a replay of previously fetched data
+     */
+    public WeatherUpdate asReplay() {
+        return new WeatherUpdate(city, currentWeather, forecast, error, true);
+    }
+    
+    public String getCity() {
+        return city;
+    }
+    
+    public WeatherData getCurrentWeather() {
+        return currentWeather;
+    }
+    
+    public ForecastData getForecast() {
+        return forecast;
+    }
+    
+    public Exception getError() {
+        return error;
+    }
+    
+    public boolean isSuccessful() {
+        return error == null;
+    }
+    
+    /**
+     * @return True if this is cached data replayed to a new subscriber rather than a fresh fetch
+     */
+    public boolean isReplay() {
+        return replay;
+    }
+    
+    @Override
+    public String toString() {
+        return isSuccessful()
+                ? String.format("Update for %s: %s", city, currentWeather)
+                : String.format("Update for %s failed: %s", city, error.getMessage());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,93 @@
+package com.michaelsemera.atmosnow;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-city registry of precipitation ring buffers
+ * 
+ * Buffers are created on first use and never replaced. Only {@link #ingest}
+ * writes to them, one call per city at a time, which keeps each buffer to a
+ * single writer; everyone else reads through {@link #snapshot(String)}.
+ * 
+ * @author Michael Semera
+ */
+public class NowcastStore {
+    
+    public static final int DEFAULT_CAPACITY = 128; // a little over two hours of minutely samples
+    
+    private final int capacity;
+    private final Map<String, PrecipitationRingBuffer> buffers = new ConcurrentHashMap<>();
+    private final Map<String, double[]> coordinates = new ConcurrentHashMap<>();
+    private final Set<String> ingesting = ConcurrentHashMap.newKeySet();
+    
+    public NowcastStore() {
+        this(DEFAULT_CAPACITY);
+    }
+    
+    /**
+     * @param capacity Samples retained per city; rounded up to a power of two
+     */
+    public NowcastStore(int capacity) {
+        PrecipitationRingBuffer.validateCapacity(capacity);
+        this.capacity = capacity;
+    }
+    
+    /**
+     * Returns the buffer for a city, creating it if needed
+     * 
+     * Package-private so that nothing outside {@link #ingest} can append.
+     * 
+     * @param city The name of the city
+     * @return The city's ring buffer
+     */
+    PrecipitationRingBuffer bufferFor(String city) {
+        return buffers.computeIfAbsent(WeatherFeed.normalize(city), k -> new PrecipitationRingBuffer(capacity));
+    }
+    
+    /**
+     * Takes a consistent snapshot of a city's samples without blocking ingest
+     * 
+     * @param city The name of the city
+     * @return Snapshot of the city's samples, empty if none have been recorded
+     * @throws IllegalStateException if ingest kept overwriting the buffer faster than it could be copied
+     */
+    public PrecipitationRingBuffer.Snapshot snapshot(String city) {
+        PrecipitationRingBuffer buffer = buffers.get(WeatherFeed.normalize(city));
+        return buffer != null
+                ? buffer.snapshot()
+                : new PrecipitationRingBuffer.Snapshot(new long[0], new double[0], 0);
+    }
+    
+    /**
+     * Fetches the latest minutely precipitation for a city into its buffer
+     * 
+     * The city's coordinates are resolved once from its current weather and
+     * then reused. Only one ingest per city runs at a time, which keeps each
+     * buffer to a single writer; a call made while another is running for the
+     * same city returns immediately. Requires a key with a One Call 3.0 subscription.
+     * 
+     * @param weatherService Service used to resolve coordinates and fetch samples
+     * @param city The name of the city
+     * @return Number of samples appended
+     * @throws Exception if an API call fails
+     */
+    public int ingest(WeatherService weatherService, String city) throws Exception {
+        String key = WeatherFeed.normalize(city);
+        if (!ingesting.add(key)) {
+            return 0;
+        }
+        try {
+            double[] coordinate = coordinates.get(key);
+            if (coordinate == null) {
+                WeatherData current = weatherService.getCurrentWeather(city);
+                coordinate = new double[] {current.getLatitude(), current.getLongitude()};
+                coordinates.put(key, coordinate);
+            }
+            return weatherService.ingestMinutelyPrecipitation(coordinate[0], coordinate[1], bufferFor(key));
+        } finally {
+            ingesting.remove(key);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,195 @@
+package com.michaelsemera.atmosnow;
+
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fixed-capacity ring buffer of minute-level precipitation samples
+ * 
+ * Samples are stored as parallel primitive arrays, so appending never
+ * allocates. Exactly one thread may append; any number of threads may take
+ * snapshots concurrently. Readers never block the writer: they copy the
+ * buffer and then discard any slots the writer may have overwritten while
+ * the copy was in progress.
+ * 
+ * @author Michael Semera
+ */
+public class PrecipitationRingBuffer {
+    
+    private static final int SNAPSHOT_ATTEMPTS = 4;
+    
+    private final long[] timestamps;
+    private final double[] intensities;
+    private final int mask;
+    
+    // Sequence of the sample being written, bumped before its slot is touched
+    private final AtomicLong claimed = new AtomicLong();
+    // Number of samples fully written and visible to readers
+    private final AtomicLong published = new AtomicLong();
+    
+    /**
+     * @param capacity Minimum number of samples to retain; rounded up to a power of two
+     */
+    public PrecipitationRingBuffer(int capacity) {
+        validateCapacity(capacity);
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.timestamps = new long[size];
+        this.intensities = new double[size];
+        this.mask = size - 1;
+    }
+    
+    /**
+     * Appends one sample, overwriting the oldest once the buffer is full
+     * 
+     * Must only be called from the single writer thread.
+     * 
+     * @param epochSecond Sample time as a Unix timestamp in seconds
+     * @param mmPerHour Precipitation intensity in mm/h
+     */
+    public void append(long epochSecond, double mmPerHour) {
+        long sequence = published.get();
+        claimed.setOpaque(sequence + 1);
+        VarHandle.storeStoreFence();
+        
+        int slot = (int) (sequence & mask);
+        timestamps[slot] = epochSecond;
+        intensities[slot] = mmPerHour;
+        
+        published.setRelease(sequence + 1);
+    }
+    
+    /**
+     * Copies the retained samples, oldest first, into caller-supplied arrays
+     * 
+     * Reusing the same arrays across calls keeps rendering allocation-free.
+     * If the writer overwrites the whole copied range while it is being read,
+     * the copy is retried a few times; should every attempt be lapped, an
+     * {@link IllegalStateException} is thrown rather than returning an empty
+     * result that would look like "no data".
+     * 
+     * @param timestampsOut Destination for timestamps; at least {@link #capacity()} long
+     * @param intensitiesOut Destination for intensities; at least {@link #capacity()} long
+     * @return Number of samples copied; zero only if nothing has been appended
+     * @throws IllegalStateException if the writer lapped every attempt
+     */
+    public int snapshot(long[] timestampsOut, double[] intensitiesOut) {
+        int capacity = capacity();
+        if (timestampsOut.length < capacity || intensitiesOut.length < capacity) {
+            throw new IllegalArgumentException("Snapshot arrays must hold at least " + capacity + " samples");
+        }
+        
+        for (int attempt = 0; attempt < SNAPSHOT_ATTEMPTS; attempt++) {
+            long end = published.getAcquire();
+            if (end == 0) {
+                return 0;
+            }
+            long start = Math.max(0, end - capacity);
+            copyRange(start, end, timestampsOut, intensitiesOut);
+            
+            // Any slot the writer claimed after our copy began may be torn; drop those from the front
+            VarHandle.loadLoadFence();
+            long firstValid = Math.max(start, claimed.getOpaque() - capacity);
+            if (firstValid >= end) {
+                continue; // lapped by the writer; nothing we copied is usable
+            }
+            int dropped = (int) (firstValid - start);
+            int count = (int) (end - firstValid);
+            if (dropped > 0) {
+                System.arraycopy(timestampsOut, dropped, timestampsOut, 0, count);
+                System.arraycopy(intensitiesOut, dropped, intensitiesOut, 0, count);
+            }
+            return count;
+        }
+        throw new IllegalStateException("Writer lapped the reader on all "
+                + SNAPSHOT_ATTEMPTS + " snapshot attempts");
+    }
+    
+    /**
+     * Copies the retained samples into newly allocated arrays
+     * 
+     * @return Consistent snapshot of the buffer, oldest sample first
+     * @throws IllegalStateException if the writer lapped every attempt
+     */
+    public Snapshot snapshot() {
+        long[] timestampsOut = new long[capacity()];
+        double[] intensitiesOut = new double[capacity()];
+        int count = snapshot(timestampsOut, intensitiesOut);
+        return new Snapshot(timestampsOut, intensitiesOut, count);
+    }
+    
+    /**
+     * Returns the timestamp of the newest sample
+     * 
+     * Must only be called from the single writer thread; a reader could see
+     * a slot the writer is overwriting. Readers should use a snapshot instead.
+     * 
+     * @return Timestamp of the newest sample, or Long.MIN_VALUE if empty
+     */
+    public long latestTimestamp() {
+        long end = published.getAcquire();
+        return end == 0 ? Long.MIN_VALUE : timestamps[(int) ((end - 1) & mask)];
+    }
+    
+    /**
+     * @return Number of samples retained, a power of two
+     */
+    public int capacity() {
+        return mask + 1;
+    }
+    
+    static void validateCapacity(int capacity) {
+        if (capacity <= 0 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("Capacity must be between 1 and 2^30: " + capacity);
+        }
+    }
+    
+    private void copyRange(long start, long end, long[] timestampsOut, double[] intensitiesOut) {
+        int count = (int) (end - start);
+        int first = (int) (start & mask);
+        int headLength = Math.min(count, capacity() - first);
+        System.arraycopy(timestamps, first, timestampsOut, 0, headLength);
+        System.arraycopy(intensities, first, intensitiesOut, 0, headLength);
+        if (headLength < count) {
+            System.arraycopy(timestamps, 0, timestampsOut, headLength, count - headLength);
+            System.arraycopy(intensities, 0, intensitiesOut, headLength, count - headLength);
+        }
+    }
+    
+    /**
+     * Immutable copy of the buffer at one point in time, oldest sample first
+     */
+    public static final class Snapshot {
+        private final long[] timestamps;
+        private final double[] intensities;
+        private final int count;
+        
+        Snapshot(long[] timestamps, double[] intensities, int count) {
+            this.timestamps = timestamps;
+            this.intensities = intensities;
+            this.count = count;
+        }
+        
+        public int getCount() {
+            return count;
+        }
+        
+        public long getTimestamp(int index) {
+            checkIndex(index);
+            return timestamps[index];
+        }
+        
+        public double getIntensity(int index) {
+            checkIndex(index);
+            return intensities[index];
+        }
+        
+        private void checkIndex(int index) {
+            if (index < 0 || index >= count) {
+                throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + count);
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -8,12 +8,14 @@ import java.net.HttpURLConnection;
 import java.net.URL;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 
 /**
  * Service class for fetching weather data from OpenWeatherMap API
@@ -26,6 +28,52 @@ public class WeatherService {
     private static final String BASE_URL = "https://api.openweathermap.org/data/2.5/";
     private static final String CURRENT_WEATHER_ENDPOINT = "weather";
     private static final String FORECAST_ENDPOINT = "forecast";
+    private static final String ONE_CALL_URL = "https://api.openweathermap.org/data/3.0/onecall";
+    private static final int DEFAULT_GEOHASH_PRECISION = 5; // ~4.9 km x 4.9 km cells
+    private static final Duration DEFAULT_CACHE_TTL = Duration.ofMinutes(10);
+    
+    private final ApiKeyPool keyPool;
+    private final SpatialWeatherCache<WeatherData> currentWeatherCache;
+    private final SpatialWeatherCache<ForecastData> forecastCache;
+    
+    public WeatherService() {
+        this(DEFAULT_GEOHASH_PRECISION, DEFAULT_CACHE_TTL);
+    }
+    
+    /**
+     * Creates a single-key service whose coordinate lookups share results per geohash cell
+     * 
+     * The single API_KEY is not capped client-side; only a 429 or 401 from the
+     * API takes it out of use, as with an explicit pool.
+     * 
+     * @param geohashPrecision Geohash length used to group nearby coordinates (1 to 12)
+     * @param cacheTtl How long a fetched result is reused for its cell
+     */
+    public WeatherService(int geohashPrecision, Duration cacheTtl) {
+        this(ApiKeyPool.of(ApiKeyPool.UNLIMITED_REQUESTS_PER_MINUTE, API_KEY), geohashPrecision, cacheTtl);
+    }
+    
+    /**
+     * Creates a service that spreads requests across a pool of API keys
+     * 
+     * @param keyPool Keys to dispatch requests to
+     */
+    public WeatherService(ApiKeyPool keyPool) {
+        this(keyPool, DEFAULT_GEOHASH_PRECISION, DEFAULT_CACHE_TTL);
+    }
+    
+    /**
+     * Creates a service whose coordinate lookups share results per geohash cell
+     * 
+     * @param keyPool Keys to dispatch requests to
+     * @param geohashPrecision Geohash length used to group nearby coordinates (1 to 12)
+     * @param cacheTtl How long a fetched result is reused for its cell
+     */
+    public WeatherService(ApiKeyPool keyPool, int geohashPrecision, Duration cacheTtl) {
+        this.keyPool = keyPool;
+        this.currentWeatherCache = new SpatialWeatherCache<>(geohashPrecision, cacheTtl);
+        this.forecastCache = new SpatialWeatherCache<>(geohashPrecision, cacheTtl);
+    }
     
     /**
      * Fetches current weather data for a given city
@@ -36,8 +84,8 @@ public class WeatherService {
      */
     public WeatherData getCurrentWeather(String city) throws Exception {
         String encodedCity = URLEncoder.encode(city, StandardCharsets.UTF_8);
-        String urlString = String.format("%s%s?q=%s&appid=%s&units=metric",
-                BASE_URL, CURRENT_WEATHER_ENDPOINT, encodedCity, API_KEY);
+        String urlString = String.format("%s%s?q=%s&units=metric",
+                BASE_URL, CURRENT_WEATHER_ENDPOINT, encodedCity);
         
         String jsonResponse = makeApiCall(urlString);
         return parseCurrentWeather(jsonResponse);
@@ -52,28 +100,180 @@ public class WeatherService {
      */
     public ForecastData getForecast(String city) throws Exception {
         String encodedCity = URLEncoder.encode(city, StandardCharsets.UTF_8);
-        String urlString = String.format("%s%s?q=%s&appid=%s&units=metric",
-                BASE_URL, FORECAST_ENDPOINT, encodedCity, API_KEY);
+        String urlString = String.format("%s%s?q=%s&units=metric",
+                BASE_URL, FORECAST_ENDPOINT, encodedCity);
         
         String jsonResponse = makeApiCall(urlString);
         return parseForecast(jsonResponse);
     }
     
     /**
-     * Makes HTTP GET request to the API
+     * Fetches current weather data for a coordinate
+     * 
+     * Coordinates falling in the same geohash cell share one upstream result
+     * (fetched for the cell centre) until the cache TTL expires.
+     * 
+     * @param latitude Latitude in degrees
+     * @param longitude Longitude in degrees
+     * @return WeatherData object containing current weather information
+     * @throws Exception if API call fails
+     */
+    public WeatherData getCurrentWeather(double latitude, double longitude) throws Exception {
+        return currentWeatherCache.getOrLoad(latitude, longitude, (lat, lon) -> {
+            String jsonResponse = makeApiCall(buildCoordinateUrl(CURRENT_WEATHER_ENDPOINT, lat, lon));
+            return parseCurrentWeather(jsonResponse);
+        });
+    }
+    
+    /**
+     * Fetches 5-day weather forecast for a coordinate
+     * 
+     * @param latitude Latitude in degrees
+     * @param longitude Longitude in degrees
+     * @return ForecastData object containing forecast information
+     * @throws Exception if API call fails
+     */
+    public ForecastData getForecast(double latitude, double longitude) throws Exception {
+        return forecastCache.getOrLoad(latitude, longitude, (lat, lon) -> {
+            String jsonResponse = makeApiCall(buildCoordinateUrl(FORECAST_ENDPOINT, lat, lon));
+            return parseForecast(jsonResponse);
+        });
+    }
+    
+    /**
+     * Looks up the closest cached current weather without calling the API
+     * 
+     * @param latitude Latitude in degrees
+     * @param longitude Longitude in degrees
+     * @param maxDistanceKm Maximum distance to the centre of a cached cell
+     * @return Nearest cached WeatherData, or null if none is within range
+     */
+    public WeatherData findNearestCurrentWeather(double latitude, double longitude, double maxDistanceKm) {
+        return currentWeatherCache.findNearest(latitude, longitude, maxDistanceKm);
+    }
+    
+    /**
+     * Looks up the closest cached forecast without calling the API
+     * 
+     * @param latitude Latitude in degrees
+     * @param longitude Longitude in degrees
+     * @param maxDistanceKm Maximum distance to the centre of a cached cell
+     * @return Nearest cached ForecastData, or null if none is within range
+     */
+    public ForecastData findNearestForecast(double latitude, double longitude, double maxDistanceKm) {
+        return forecastCache.findNearest(latitude, longitude, maxDistanceKm);
+    }
+    
+    /**
+     * Fetches minute-by-minute precipitation for the next hour into a ring buffer
+     * 
+     * Uses the One Call 3.0 API. Minutes already present in the buffer are
+     * skipped, so overlapping fetches only append new samples. The caller must
+     * be the buffer's only writer.
+     * 
+     * @param latitude Latitude in degrees
+     * @param longitude Longitude in degrees
+     * @param buffer Ring buffer to append samples to
+     * @return Number of samples appended
+     * @throws Exception if API call fails
+     */
+    public int ingestMinutelyPrecipitation(double latitude, double longitude,
+                                           PrecipitationRingBuffer buffer) throws Exception {
+        Geohash.validateCoordinates(latitude, longitude);
+        String urlString = String.format(Locale.ROOT,
+                "%s?lat=%.6f&lon=%.6f&exclude=current,hourly,daily,alerts&units=metric",
+                ONE_CALL_URL, latitude, longitude);
+        
+        // Keys without a One Call subscription get 401 here but remain valid for the 2.5 endpoints
+        JSONObject json = new JSONObject(makeApiCall(urlString, true));
+        if (!json.has("minutely")) {
+            return 0;
+        }
+        
+        JSONArray minutely = json.getJSONArray("minutely");
+        long latest = buffer.latestTimestamp();
+        int appended = 0;
+        for (int i = 0; i < minutely.length(); i++) {
+            JSONObject item = minutely.getJSONObject(i);
+            long timestamp = item.getLong("dt");
+            if (timestamp > latest) {
+                buffer.append(timestamp, item.getDouble("precipitation"));
+                latest = timestamp;
+                appended++;
+            }
+        }
+        return appended;
+    }
+    
+    /**
+     * @return Per-key request counts and quarantine state
+     */
+    public List<ApiKeyPool.KeyUsage> getApiKeyUsage() {
+        return keyPool.getUsage();
+    }
+    
+    /**
+     * Builds a coordinate-based request URL
+     * 
+     * @param endpoint API endpoint name
+     * @param latitude Latitude in degrees
+     * @param longitude Longitude in degrees
+     * @return Complete URL for the API call
+     */
+    private String buildCoordinateUrl(String endpoint, double latitude, double longitude) {
+        return String.format(Locale.ROOT, "%s%s?lat=%.6f&lon=%.6f&units=metric",
+                BASE_URL, endpoint, latitude, longitude);
+    }
+    
+    /**
+     * Makes HTTP GET request to the API using a key from the pool
      * 
-     * @param urlString The complete URL for the API call
+     * @param urlString The URL for the API call, without the appid parameter
      * @return JSON response as a string
-     * @throws Exception if connection fails
+     * @throws Exception if connection fails or no key has quota left
      */
     private String makeApiCall(String urlString) throws Exception {
-        URL url = new URL(urlString);
-        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-        connection.setRequestMethod("GET");
-        connection.setConnectTimeout(5000);
-        connection.setReadTimeout(5000);
+        return makeApiCall(urlString, false);
+    }
+    
+    /**
+     * Makes HTTP GET request to the API using a key from the pool
+     * 
+     * A request rejected with 401 or 429 is retried with the next available
+     * key, up to once per key in the pool.
+     * 
+     * For One Call requests a 401 means the key has no One Call subscription:
+     * the key is skipped for One Call only and stays in use for everything else.
+     * 
+     * @param urlString The URL for the API call, without the appid parameter
+     * @param oneCall Whether the URL targets the One Call API
+     * @return JSON response as a string
+     * @throws Exception if connection fails or no key has quota left
+     */
+    private String makeApiCall(String urlString, boolean oneCall) throws Exception {
+        HttpURLConnection connection = null;
+        int responseCode = 0;
+        
+        for (int attempt = 0; attempt < Math.max(1, keyPool.size()); attempt++) {
+            ApiKeyPool.ApiKey key = keyPool.acquire(oneCall);
+            URL url = new URL(urlString + "&appid=" + URLEncoder.encode(key.getValue(), StandardCharsets.UTF_8));
+            connection = (HttpURLConnection) url.openConnection();
+            connection.setRequestMethod("GET");
+            connection.setConnectTimeout(5000);
+            connection.setReadTimeout(5000);
+            
+            responseCode = connection.getResponseCode();
+            if (oneCall && responseCode == 401) {
+                keyPool.recordOneCallDenied(key);
+            } else {
+                keyPool.recordResponse(key, responseCode);
+            }
+            if (responseCode != 401 && responseCode != 429) {
+                break;
+            }
+            connection.disconnect();
+        }
         
-        int responseCode = connection.getResponseCode();
         if (responseCode != 200) {
             throw new Exception("API returned error code: " + responseCode);
         }
@@ -103,6 +303,10 @@ public class WeatherService {
         
         String cityName = json.getString("name");
         
+        JSONObject coord = json.getJSONObject("coord");
+        double latitude = coord.getDouble("lat");
+        double longitude = coord.getDouble("lon");
+        
         JSONObject main = json.getJSONObject("main");
         double temperature = main.getDouble("temp");
         double feelsLike = main.getDouble("feels_like");
@@ -126,7 +330,8 @@ public class WeatherService {
         
         return new WeatherData(
             cityName, temperature, feelsLike, humidity, pressure,
-            condition, description, windSpeed, sunrise, sunset
+            condition, description, windSpeed, sunrise, sunset,
+            latitude, longitude
         );
     }
     
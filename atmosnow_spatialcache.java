@@ -0,0 +1,223 @@
+package com.michaelsemera.atmosnow;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Time-limited cache of weather results keyed by geohash cell
+ * 
+ * Coordinates are quantized to a geohash of configurable precision, so all
+ * positions inside one cell share a single upstream result until it expires.
+ * Concurrent misses on the same cell are coalesced into one load.
+ * 
+ * @author Michael Semera
+ */
+class SpatialWeatherCache<T> {
+    
+    /**
+     * Loads a value for the centre of a cell
+     */
+    @FunctionalInterface
+    interface CellLoader<T> {
+        T load(double latitude, double longitude) throws Exception;
+    }
+    
+    private static final double KM_PER_DEGREE = 111.32;
+    private static final int EVICTION_INTERVAL = 256;
+    
+    private final int precision;
+    private final long ttlNanos;
+    private final Map<String, CacheEntry<T>> entries = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<T>> loading = new ConcurrentHashMap<>();
+    private final AtomicInteger loadsSinceEviction = new AtomicInteger();
+    
+    /**
+     * @param precision Geohash length used as the cache key (1 to 12)
+     * @param ttl How long a loaded result stays valid
+     */
+    SpatialWeatherCache(int precision, Duration ttl) {
+        Geohash.validatePrecision(precision);
+        if (ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("Cache TTL must be positive: " + ttl);
+        }
+        this.precision = precision;
+        this.ttlNanos = ttl.toNanos();
+    }
+    
+    /**
+     * Returns the cached value for the cell containing a coordinate, loading it on a miss
+     * 
+     * @param latitude Latitude in degrees
+     * @param longitude Longitude in degrees
+     * @param loader Called with the cell centre when no fresh value is cached
+     * @return Cached or freshly loaded value
+     * @throws Exception if the load fails
+     */
+    T getOrLoad(double latitude, double longitude, CellLoader<T> loader) throws Exception {
+        String cell = Geohash.encode(latitude, longitude, precision);
+        T cached = getFresh(cell);
+        if (cached != null) {
+            return cached;
+        }
+        
+        CompletableFuture<T> pending = new CompletableFuture<>();
+        CompletableFuture<T> inFlight = loading.putIfAbsent(cell, pending);
+        if (inFlight != null) {
+            return await(inFlight);
+        }
+        
+        try {
+            // Another caller may have finished loading between our lookup and claiming the cell
+            T value = getFresh(cell);
+            if (value == null) {
+                double[] center = Geohash.decodeCenter(cell);
+                value = loader.load(center[0], center[1]);
+                entries.put(cell, new CacheEntry<>(value, center[0], center[1],
+                        System.nanoTime() + ttlNanos));
+            }
+            pending.complete(value);
+            return value;
+        } catch (Throwable t) {
+            // Errors too, or callers already waiting on this cell would block forever
+            pending.completeExceptionally(t);
+            throw t;
+        } finally {
+            loading.remove(cell, pending);
+            if (loadsSinceEviction.incrementAndGet() >= EVICTION_INTERVAL) {
+                loadsSinceEviction.set(0);
+                evictExpired();
+            }
+        }
+    }
+    
+    /**
+     * Finds the fresh cached value whose cell centre is closest to a coordinate
+     * 
+     * Probes the surrounding cells ring by ring when the search area is small,
+     * and falls back to scanning every cached cell when that would be cheaper.
+     * 
+     * @param latitude Latitude in degrees
+     * @param longitude Longitude in degrees
+     * @param maxDistanceKm Maximum distance from the coordinate to a cell centre
+     * @return Nearest cached value, or null if none is within range
+     */
+    T findNearest(double latitude, double longitude, double maxDistanceKm) {
+        Geohash.validateCoordinates(latitude, longitude);
+        if (entries.isEmpty() || !(maxDistanceKm >= 0)) {
+            return null;
+        }
+        
+        double heightDeg = Geohash.cellHeightDegrees(precision);
+        double widthDeg = Geohash.cellWidthDegrees(precision);
+        
+        // A cell k steps away has its centre at least (k - 0.5) cells from any point in ours
+        int latRings = (int) Math.ceil(maxDistanceKm / (heightDeg * KM_PER_DEGREE) + 0.5);
+        double widestLat = Math.min(90, Math.abs(latitude) + latRings * heightDeg);
+        double lonKmPerCell = widthDeg * KM_PER_DEGREE * Math.cos(Math.toRadians(widestLat));
+        double lonRings = lonKmPerCell > 0
+                ? Math.ceil(maxDistanceKm / lonKmPerCell + 0.5)
+                : Double.POSITIVE_INFINITY;
+        double probes = (2.0 * latRings + 1) * (2.0 * lonRings + 1);
+        
+        long now = System.nanoTime();
+        if (probes > entries.size()) {
+            return scanNearest(latitude, longitude, maxDistanceKm, now);
+        }
+        
+        double[] origin = Geohash.decodeCenter(Geohash.encode(latitude, longitude, precision));
+        CacheEntry<T> best = null;
+        double bestDistance = maxDistanceKm;
+        for (int i = -latRings; i <= latRings; i++) {
+            double probeLat = origin[0] + i * heightDeg;
+            if (probeLat < -90 || probeLat > 90) {
+                continue;
+            }
+            for (int j = (int) -lonRings; j <= lonRings; j++) {
+                double probeLon = wrapLongitude(origin[1] + j * widthDeg);
+                CacheEntry<T> entry = entries.get(Geohash.encode(probeLat, probeLon, precision));
+                if (entry == null || !entry.isFresh(now)) {
+                    continue;
+                }
+                double distance = Geohash.distanceKm(latitude, longitude, entry.latitude, entry.longitude);
+                if (distance <= bestDistance) {
+                    best = entry;
+                    bestDistance = distance;
+                }
+            }
+        }
+        return best != null ? best.value : null;
+    }
+    
+    /**
+     * Removes every expired cell
+     */
+    void evictExpired() {
+        long now = System.nanoTime();
+        entries.values().removeIf(entry -> !entry.isFresh(now));
+    }
+    
+    private T getFresh(String cell) {
+        CacheEntry<T> entry = entries.get(cell);
+        return entry != null && entry.isFresh(System.nanoTime()) ? entry.value : null;
+    }
+    
+    private T scanNearest(double latitude, double longitude, double maxDistanceKm, long now) {
+        CacheEntry<T> best = null;
+        double bestDistance = maxDistanceKm;
+        for (CacheEntry<T> entry : entries.values()) {
+            if (!entry.isFresh(now)) {
+                continue;
+            }
+            double distance = Geohash.distanceKm(latitude, longitude, entry.latitude, entry.longitude);
+            if (distance <= bestDistance) {
+                best = entry;
+                bestDistance = distance;
+            }
+        }
+        return best != null ? best.value : null;
+    }
+    
+    private static double wrapLongitude(double longitude) {
+        if (longitude >= 180) {
+            return longitude - 360;
+        }
+        if (longitude < -180) {
+            return longitude + 360;
+        }
+        return longitude;
+    }
+    
+    private static <T> T await(CompletableFuture<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw new Exception(cause);
+        }
+    }
+    
+    private static final class CacheEntry<T> {
+        private final T value;
+        private final double latitude;
+        private final double longitude;
+        private final long expiresAtNanos;
+        
+        CacheEntry(T value, double latitude, double longitude, long expiresAtNanos) {
+            this.value = value;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+        
+        boolean isFresh(long now) {
+            return now - expiresAtNanos < 0;
+        }
+    }
+}